@@ -13,6 +13,11 @@ import java.util.UUID;
  */
 public class ByteBuf {
 
+    /**
+     * Metrics hook shared by all buffers, {@code null} when metrics are disabled.
+     */
+    private static volatile ByteBufMetrics metrics;
+
     /**
      * The content of this buffer.
      */
@@ -61,6 +66,25 @@ public class ByteBuf {
         this.capacity = capacity;
     }
 
+    /**
+     * Installs the metrics hook notified about resizes and copies of all buffers.
+     * Metrics are disabled by default.
+     *
+     * @param newMetrics the hook to be notified, or {@code null} to disable metrics
+     */
+    public static void setMetrics(ByteBufMetrics newMetrics) {
+        metrics = newMetrics;
+    }
+
+    /**
+     * Returns the installed metrics hook.
+     *
+     * @return The metrics hook, or {@code null} if metrics are disabled
+     */
+    public static ByteBufMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Returns this buffer's capacity.
      *
@@ -483,6 +507,10 @@ public class ByteBuf {
     public byte[] toArray() {
         byte[] newData = new byte[limit];
         System.arraycopy(data, 0, newData, 0, limit);
+        ByteBufMetrics m = metrics;
+        if (m != null) {
+            m.onCopy(limit);
+        }
         return newData;
     }
 
@@ -495,6 +523,10 @@ public class ByteBuf {
         byte[] newData = new byte[capacity];
         int length = Math.min(data.length, capacity);
         System.arraycopy(data, 0, newData, 0, length);
+        ByteBufMetrics m = metrics;
+        if (m != null) {
+            m.onResize(this.capacity, capacity, length);
+        }
         data = newData;
         this.capacity = capacity;
     }
@@ -0,0 +1,127 @@
+package com.editbox.database.serialize;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A factory of {@link ByteBuf ByteBuf} which predicts the initial capacity.
+ * <p>
+ * For every caller tag it keeps the final limits of recently recorded buffers
+ * and sizes the next buffer to the given percentile of them, so buffers of a
+ * steady workload are created large enough and do not grow.
+ */
+public class ByteBufAllocator {
+
+    /**
+     * Capacity of buffers allocated for a tag without recorded limits.
+     */
+    private final int defaultCapacity;
+
+    /**
+     * Number of recent limits kept for each tag.
+     */
+    private final int window;
+
+    /**
+     * Percentile of recent limits used as the initial capacity.
+     */
+    private final double percentile;
+
+    private final ConcurrentMap<String, History> histories = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new {@link ByteBufAllocator ByteBufAllocator} which keeps
+     * 64 recent limits per tag and predicts the 90th percentile of them.
+     */
+    public ByteBufAllocator() {
+        this(256, 64, 0.9);
+    }
+
+    /**
+     * Constructs a new {@link ByteBufAllocator ByteBufAllocator}.
+     *
+     * @param defaultCapacity the capacity of buffers allocated for a tag without recorded limits
+     * @param window          the number of recent limits kept for each tag
+     * @param percentile      the percentile of recent limits used as the initial capacity, from 0 to 1
+     */
+    public ByteBufAllocator(int defaultCapacity, int window, double percentile) {
+        if (defaultCapacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity");
+        }
+        if (window < 1) {
+            throw new IllegalArgumentException("Invalid window");
+        }
+        if (!(percentile >= 0 && percentile <= 1)) {
+            throw new IllegalArgumentException("Invalid percentile");
+        }
+        this.defaultCapacity = defaultCapacity;
+        this.window = window;
+        this.percentile = percentile;
+    }
+
+    /**
+     * Constructs a new {@link ByteBuf ByteBuf} with the capacity predicted for the given tag.
+     *
+     * @param tag the caller tag, e.g. a message type
+     * @return The new buffer
+     */
+    public ByteBuf allocate(String tag) {
+        return new ByteBuf(predict(tag));
+    }
+
+    /**
+     * Records the final limit of a buffer, which is used to size next buffers of the given tag.
+     * The limit is also reported to the metrics hook installed in {@link ByteBuf ByteBuf}.
+     *
+     * @param tag the caller tag the buffer was allocated for
+     * @param buf the buffer, filled completely
+     */
+    public void record(String tag, ByteBuf buf) {
+        int limit = buf.getLimit();
+        histories.computeIfAbsent(tag, key -> new History()).add(limit);
+        ByteBufMetrics metrics = ByteBuf.getMetrics();
+        if (metrics != null) {
+            metrics.onRecord(tag, limit);
+        }
+    }
+
+    /**
+     * Returns the initial capacity predicted for the given tag.
+     *
+     * @param tag the caller tag
+     * @return The predicted capacity
+     */
+    public int predict(String tag) {
+        History history = histories.get(tag);
+        return history == null ? defaultCapacity : history.prediction;
+    }
+
+    /**
+     * Recent limits of one tag.
+     */
+    private class History {
+
+        private final int[] limits = new int[window];
+
+        private final int[] sorted = new int[window];
+
+        private int count;
+
+        private int next;
+
+        private volatile int prediction = defaultCapacity;
+
+        synchronized void add(int limit) {
+            limits[next] = limit;
+            next = (next + 1) % window;
+            if (count < window) {
+                count++;
+            }
+            System.arraycopy(limits, 0, sorted, 0, count);
+            Arrays.sort(sorted, 0, count);
+            int index = Math.max((int) Math.ceil(percentile * count) - 1, 0);
+            prediction = Math.max(sorted[index], 1);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.editbox.database.serialize;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteBufAllocatorTest {
+
+    @Test
+    void defaultCapacityTest() {
+        ByteBufAllocator allocator = new ByteBufAllocator();
+        assertEquals(256, allocator.allocate("message").getCapacity());
+    }
+
+    @Test
+    void predictedCapacityTest() {
+        ByteBufAllocator allocator = new ByteBufAllocator();
+        ByteBuf buf = allocator.allocate("message");
+        buf.setPosition(5000);
+        allocator.record("message", buf);
+        assertEquals(5000, allocator.allocate("message").getCapacity());
+        assertEquals(256, allocator.allocate("other").getCapacity());
+    }
+
+    @Test
+    void percentileTest() {
+        ByteBufAllocator allocator = new ByteBufAllocator(256, 10, 0.9);
+        for (int i = 1; i <= 10; i++) {
+            ByteBuf buf = new ByteBuf();
+            buf.setLimit(i * 1000);
+            allocator.record("message", buf);
+        }
+        assertEquals(9000, allocator.predict("message"));
+    }
+
+    @Test
+    void windowTest() {
+        ByteBufAllocator allocator = new ByteBufAllocator(256, 2, 1.0);
+        for (int limit : new int[]{8000, 100, 200}) {
+            ByteBuf buf = new ByteBuf();
+            buf.setLimit(limit);
+            allocator.record("message", buf);
+        }
+        assertEquals(200, allocator.predict("message"));
+    }
+
+    @Test
+    void invalidArgumentsTest() {
+        assertThrows(IllegalArgumentException.class, () -> new ByteBufAllocator(0, 64, 0.9));
+        assertThrows(IllegalArgumentException.class, () -> new ByteBufAllocator(256, 0, 0.9));
+        assertThrows(IllegalArgumentException.class, () -> new ByteBufAllocator(256, 64, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> new ByteBufAllocator(256, 64, Double.NaN));
+    }
+}
@@ -0,0 +1,33 @@
+package com.editbox.database.serialize;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event of a large growth of {@link ByteBuf ByteBuf}.
+ * <p>
+ * It is committed by {@link ByteBufStats} for growths to a capacity of at least
+ * its large growth threshold.
+ */
+@Name("com.editbox.database.serialize.ByteBufGrowth")
+@Label("ByteBuf Growth")
+@Category("ByteBuf")
+@Description("A byte buffer grew to a large capacity")
+public class ByteBufGrowthEvent extends Event {
+
+    @Label("Old Capacity")
+    @DataAmount
+    int oldCapacity;
+
+    @Label("New Capacity")
+    @DataAmount
+    int newCapacity;
+
+    @Label("Bytes Copied")
+    @DataAmount
+    int bytesCopied;
+}
@@ -0,0 +1,35 @@
+package com.editbox.database.serialize;
+
+/**
+ * A hook notified about the expensive operations of {@link ByteBuf ByteBuf}.
+ * <p>
+ * It is installed with {@link ByteBuf#setMetrics(ByteBufMetrics)} and is shared
+ * by all buffers, so implementations must be thread-safe and cheap.
+ */
+public interface ByteBufMetrics {
+
+    /**
+     * Called when a buffer changes its capacity.
+     *
+     * @param oldCapacity the capacity before the resize
+     * @param newCapacity the capacity after the resize
+     * @param bytesCopied the number of bytes copied into the new array
+     */
+    void onResize(int oldCapacity, int newCapacity, int bytesCopied);
+
+    /**
+     * Called when the content of a buffer is copied out by {@link ByteBuf#toArray()}.
+     *
+     * @param bytesCopied the number of bytes copied
+     */
+    void onCopy(int bytesCopied);
+
+    /**
+     * Called when the final size of a buffer is recorded by
+     * {@link ByteBufAllocator#record(String, ByteBuf)}.
+     *
+     * @param tag  the caller tag the buffer was allocated for
+     * @param size the final limit of the buffer
+     */
+    void onRecord(String tag, int size);
+}
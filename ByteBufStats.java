@@ -0,0 +1,232 @@
+package com.editbox.database.serialize;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of resizes and copies of {@link ByteBuf ByteBuf}.
+ * <p>
+ * Install it with {@link ByteBuf#setMetrics(ByteBufMetrics)}. Final sizes of buffers
+ * recorded by {@link ByteBufAllocator} are kept per caller tag in a histogram with
+ * power-of-two buckets.
+ * <p>
+ * Growths to a capacity of at least the large growth threshold are counted apart
+ * and reported to Java Flight Recorder as {@link ByteBufGrowthEvent} when a
+ * recording with this event enabled is running.
+ */
+public class ByteBufStats implements ByteBufMetrics {
+
+    /**
+     * Number of histogram buckets, one for zero and one per bit of a positive int.
+     */
+    public static final int BUCKETS = 32;
+
+    /**
+     * Capacity from which a growth is large, if no other threshold is given.
+     */
+    public static final int DEFAULT_LARGE_GROWTH_THRESHOLD = 1 << 20;
+
+    /**
+     * Capacity from which a growth is counted and reported as large.
+     */
+    private final int largeGrowthThreshold;
+
+    private final LongAdder resizeCount = new LongAdder();
+
+    private final LongAdder resizeBytesCopied = new LongAdder();
+
+    private final LongAdder largeGrowthCount = new LongAdder();
+
+    private final LongAdder shrinkCount = new LongAdder();
+
+    private final LongAdder shrinkBytesCopied = new LongAdder();
+
+    private final LongAdder copyCount = new LongAdder();
+
+    private final LongAdder copyBytesCopied = new LongAdder();
+
+    private final AtomicInteger peakCapacity = new AtomicInteger();
+
+    private final ConcurrentMap<String, AtomicLongArray> sizes = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new {@link ByteBufStats ByteBufStats} with the default large growth threshold.
+     */
+    public ByteBufStats() {
+        this(DEFAULT_LARGE_GROWTH_THRESHOLD);
+    }
+
+    /**
+     * Constructs a new {@link ByteBufStats ByteBufStats} with the given large growth threshold.
+     *
+     * @param largeGrowthThreshold the capacity from which a growth is counted and reported as large
+     */
+    public ByteBufStats(int largeGrowthThreshold) {
+        if (largeGrowthThreshold < 1) {
+            throw new IllegalArgumentException("Invalid threshold");
+        }
+        this.largeGrowthThreshold = largeGrowthThreshold;
+    }
+
+    @Override
+    public void onResize(int oldCapacity, int newCapacity, int bytesCopied) {
+        if (newCapacity > oldCapacity) {
+            resizeCount.increment();
+            resizeBytesCopied.add(bytesCopied);
+            if (newCapacity >= largeGrowthThreshold) {
+                largeGrowthCount.increment();
+                ByteBufGrowthEvent event = new ByteBufGrowthEvent();
+                if (event.shouldCommit()) {
+                    event.oldCapacity = oldCapacity;
+                    event.newCapacity = newCapacity;
+                    event.bytesCopied = bytesCopied;
+                    event.commit();
+                }
+            }
+        } else {
+            shrinkCount.increment();
+            shrinkBytesCopied.add(bytesCopied);
+        }
+        peakCapacity.accumulateAndGet(Math.max(oldCapacity, newCapacity), Math::max);
+    }
+
+    @Override
+    public void onCopy(int bytesCopied) {
+        copyCount.increment();
+        copyBytesCopied.add(bytesCopied);
+    }
+
+    @Override
+    public void onRecord(String tag, int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Invalid size");
+        }
+        sizes.computeIfAbsent(tag, key -> new AtomicLongArray(BUCKETS)).incrementAndGet(bucketOf(size));
+    }
+
+    /**
+     * Returns the histogram of final sizes recorded for the given tag.
+     * The bucket {@code 0} counts empty buffers, the bucket {@code i}
+     * counts sizes from {@code 2^(i-1)} to {@code 2^i - 1}.
+     *
+     * @param tag the caller tag
+     * @return The copy of the histogram, all zeros if nothing was recorded
+     */
+    public long[] getSizeHistogram(String tag) {
+        long[] result = new long[BUCKETS];
+        AtomicLongArray histogram = sizes.get(tag);
+        if (histogram != null) {
+            for (int i = 0; i < BUCKETS; i++) {
+                result[i] = histogram.get(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of resizes which enlarged a buffer.
+     *
+     * @return The number of growing resizes
+     */
+    public long getResizeCount() {
+        return resizeCount.sum();
+    }
+
+    /**
+     * Returns the number of bytes copied by resizes which enlarged a buffer.
+     *
+     * @return The number of bytes copied by growing resizes
+     */
+    public long getResizeBytesCopied() {
+        return resizeBytesCopied.sum();
+    }
+
+    /**
+     * Returns the number of resizes which enlarged a buffer to at least the large growth threshold.
+     *
+     * @return The number of large growths
+     */
+    public long getLargeGrowthCount() {
+        return largeGrowthCount.sum();
+    }
+
+    /**
+     * Returns the capacity from which a growth is counted and reported as large.
+     *
+     * @return The large growth threshold
+     */
+    public int getLargeGrowthThreshold() {
+        return largeGrowthThreshold;
+    }
+
+    /**
+     * Returns the number of resizes which did not enlarge a buffer,
+     * e.g. made by {@link ByteBuf#trimToSize()}.
+     *
+     * @return The number of shrinking resizes
+     */
+    public long getShrinkCount() {
+        return shrinkCount.sum();
+    }
+
+    /**
+     * Returns the number of bytes copied by resizes which did not enlarge a buffer.
+     *
+     * @return The number of bytes copied by shrinking resizes
+     */
+    public long getShrinkBytesCopied() {
+        return shrinkBytesCopied.sum();
+    }
+
+    /**
+     * Returns the number of copies made by {@link ByteBuf#toArray()}.
+     *
+     * @return The number of copies
+     */
+    public long getCopyCount() {
+        return copyCount.sum();
+    }
+
+    /**
+     * Returns the number of bytes copied by {@link ByteBuf#toArray()}.
+     *
+     * @return The number of bytes copied
+     */
+    public long getCopyBytesCopied() {
+        return copyBytesCopied.sum();
+    }
+
+    /**
+     * Returns the largest capacity a buffer has had before or after a resize.
+     *
+     * @return The peak capacity
+     */
+    public int getPeakCapacity() {
+        return peakCapacity.get();
+    }
+
+    /**
+     * Resets all counters and histograms.
+     */
+    public void reset() {
+        resizeCount.reset();
+        resizeBytesCopied.reset();
+        largeGrowthCount.reset();
+        shrinkCount.reset();
+        shrinkBytesCopied.reset();
+        copyCount.reset();
+        copyBytesCopied.reset();
+        peakCapacity.set(0);
+        sizes.clear();
+    }
+
+    /**
+     * Returns the histogram bucket of the given size.
+     */
+    static int bucketOf(int size) {
+        return BUCKETS - Integer.numberOfLeadingZeros(size);
+    }
+}
@@ -0,0 +1,91 @@
+package com.editbox.database.serialize;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteBufStatsTest {
+
+    private final ByteBufStats stats = new ByteBufStats();
+
+    @BeforeEach
+    void install() {
+        ByteBuf.setMetrics(stats);
+    }
+
+    @AfterEach
+    void uninstall() {
+        ByteBuf.setMetrics(null);
+    }
+
+    @Test
+    void resizeTest() {
+        ByteBuf buf = new ByteBuf(4);
+        buf.putInt(1);
+        buf.putInt(2);
+        buf.putInt(3);
+        assertEquals(2, stats.getResizeCount());
+        assertEquals(12, stats.getResizeBytesCopied());
+        assertEquals(16, stats.getPeakCapacity());
+    }
+
+    @Test
+    void copyTest() {
+        ByteBuf buf = new ByteBuf();
+        buf.putLong(1);
+        buf.toArray();
+        assertEquals(1, stats.getCopyCount());
+        assertEquals(8, stats.getCopyBytesCopied());
+        assertEquals(0, stats.getResizeCount());
+    }
+
+    @Test
+    void disabledTest() {
+        ByteBuf.setMetrics(null);
+        ByteBuf buf = new ByteBuf(1);
+        buf.putLong(1);
+        buf.toArray();
+        assertEquals(0, stats.getResizeCount());
+        assertEquals(0, stats.getCopyCount());
+    }
+
+    @Test
+    void largeGrowthTest() {
+        ByteBufStats stats = new ByteBufStats(64);
+        ByteBuf.setMetrics(stats);
+        ByteBuf buf = new ByteBuf(16);
+        buf.setPosition(16);
+        buf.putByte((byte) 1);
+        buf.setPosition(100);
+        buf.putLong(1);
+        assertEquals(3, stats.getResizeCount());
+        assertEquals(2, stats.getLargeGrowthCount());
+        assertThrows(IllegalArgumentException.class, () -> new ByteBufStats(0));
+    }
+
+    @Test
+    void shrinkTest() {
+        ByteBuf buf = new ByteBuf();
+        buf.putInt(1);
+        buf.trimToSize();
+        assertEquals(0, stats.getResizeCount());
+        assertEquals(1, stats.getShrinkCount());
+        assertEquals(4, stats.getShrinkBytesCopied());
+        assertEquals(256, stats.getPeakCapacity());
+    }
+
+    @Test
+    void sizeHistogramTest() {
+        ByteBufAllocator allocator = new ByteBufAllocator();
+        allocator.record("message", new ByteBuf());
+        ByteBuf buf = new ByteBuf();
+        buf.setLimit(5000);
+        allocator.record("message", buf);
+        buf.setLimit(8191);
+        allocator.record("message", buf);
+        long[] histogram = stats.getSizeHistogram("message");
+        assertEquals(1, histogram[0]);
+        assertEquals(2, histogram[13]);
+        assertEquals(0, stats.getSizeHistogram("other")[13]);
+    }
+}
@@ -0,0 +1,126 @@
+package com.editbox.database.serialize;
+
+/**
+ * Reads fields of a record written by {@link IndexedRecordWriter} in any order.
+ * <p>
+ * Nothing is decoded in advance: a field is located by its offset in the index
+ * and only the requested values are read.
+ */
+public class IndexedRecordReader {
+
+    private final ByteBuf buf;
+
+    /**
+     * Position of the record in the buffer.
+     */
+    private final int start;
+
+    /**
+     * Position of the record body in the buffer.
+     */
+    private final int bodyStart;
+
+    private final int fieldCount;
+
+    /**
+     * Offset of the body end relative to the body start.
+     */
+    private final int bodyEnd;
+
+    /**
+     * Opens the record at the current position of the buffer.
+     *
+     * @param buf the buffer to read from
+     */
+    public IndexedRecordReader(ByteBuf buf) {
+        this.buf = buf;
+        this.start = buf.getPosition();
+        if (buf.getLimit() - start < 8) {
+            throw new IllegalArgumentException("Invalid record");
+        }
+        this.fieldCount = buf.getInt();
+        if (fieldCount < 0 || fieldCount > (buf.getLimit() - start - 8) / 4) {
+            throw new IllegalArgumentException("Invalid field count");
+        }
+        this.bodyStart = bodyStart(start, fieldCount);
+        buf.setPosition(start + 4 + fieldCount * 4);
+        this.bodyEnd = buf.getInt();
+        if (bodyEnd < 0 || bodyEnd > buf.getLimit() - bodyStart) {
+            throw new IllegalArgumentException("Invalid field offset");
+        }
+    }
+
+    /**
+     * Returns the number of fields in the record.
+     *
+     * @return The number of fields
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Moves the position of the buffer to the start of the given field.
+     * The value of the field is read by the usual get methods.
+     *
+     * @param index the index of the field
+     * @return The buffer to read the field from
+     */
+    public ByteBuf field(int index) {
+        checkIndex(index);
+        buf.setPosition(bodyStart + offset(index));
+        return buf;
+    }
+
+    /**
+     * Returns the length of the given field in bytes.
+     *
+     * @param index the index of the field
+     * @return The length of the field
+     */
+    public int fieldLength(int index) {
+        checkIndex(index);
+        int position = buf.getPosition();
+        int length = offset(index + 1) - offset(index);
+        if (length < 0) {
+            throw new IllegalArgumentException("Invalid field offset");
+        }
+        buf.setPosition(position);
+        return length;
+    }
+
+    /**
+     * Moves the position of the buffer to the end of the record.
+     *
+     * @return The buffer
+     */
+    public ByteBuf skip() {
+        buf.setPosition(bodyStart + bodyEnd);
+        return buf;
+    }
+
+    /**
+     * Reads the offset of the given field, the offset of the body end follows the last field.
+     */
+    private int offset(int index) {
+        buf.setPosition(start + 4 + index * 4);
+        int offset = buf.getInt();
+        if (offset < 0 || offset > bodyEnd) {
+            throw new IllegalArgumentException("Invalid field offset");
+        }
+        return offset;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IllegalArgumentException("Invalid field index");
+        }
+    }
+
+    /**
+     * Returns the position of the body of the record with the given number of fields.
+     */
+    static int bodyStart(int start, int fieldCount) {
+        return start + 4 + (fieldCount + 1) * 4;
+    }
+}
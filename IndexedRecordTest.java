@@ -0,0 +1,126 @@
+package com.editbox.database.serialize;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedRecordTest {
+
+    @Test
+    void fieldTest() {
+        ByteBuf buf = new ByteBuf();
+        IndexedRecordWriter writer = new IndexedRecordWriter(buf, 3);
+        writer.nextField().putInt(1234567890);
+        writer.nextField().putString("Hello world!");
+        writer.nextField().putLong(5555555555555555555L);
+        writer.finish();
+        buf.setPosition(0);
+        IndexedRecordReader reader = new IndexedRecordReader(buf);
+        assertEquals(3, reader.getFieldCount());
+        assertEquals(5555555555555555555L, reader.field(2).getLong());
+        assertEquals(1234567890, reader.field(0).getInt());
+        assertEquals("Hello world!", reader.field(1).getString(reader.fieldLength(1)));
+    }
+
+    @Test
+    void fieldLengthTest() {
+        ByteBuf buf = new ByteBuf();
+        IndexedRecordWriter writer = new IndexedRecordWriter(buf, 3);
+        writer.nextField().putInt(1234567890);
+        writer.nextField().putString("Hello world!");
+        writer.nextField().putLong(5555555555555555555L);
+        writer.finish();
+        buf.setPosition(0);
+        IndexedRecordReader reader = new IndexedRecordReader(buf);
+        assertEquals(4, reader.fieldLength(0));
+        assertEquals(12, reader.fieldLength(1));
+        assertEquals(8, reader.fieldLength(2));
+    }
+
+    @Test
+    void skipTest() {
+        ByteBuf buf = new ByteBuf();
+        buf.putByte((byte) 0x55);
+        IndexedRecordWriter writer = new IndexedRecordWriter(buf, 2);
+        writer.nextField().putInt(1234567890);
+        writer.nextField().putString("Hello world!");
+        writer.finish();
+        buf.putByte((byte) 0x66);
+        buf.setPosition(1);
+        new IndexedRecordReader(buf).skip();
+        assertEquals((byte) 0x66, buf.getByte());
+        assertEquals(buf.getLimit(), buf.getPosition());
+    }
+
+    @Test
+    void missingFieldTest() {
+        IndexedRecordWriter writer = new IndexedRecordWriter(new ByteBuf(), 2);
+        writer.nextField().putInt(1);
+        assertThrows(IllegalStateException.class, writer::finish);
+    }
+
+    @Test
+    void invalidIndexTest() {
+        ByteBuf buf = new ByteBuf();
+        IndexedRecordWriter writer = new IndexedRecordWriter(buf, 1);
+        writer.nextField().putInt(1234567890);
+        writer.finish();
+        buf.setPosition(0);
+        IndexedRecordReader reader = new IndexedRecordReader(buf);
+        assertThrows(IllegalArgumentException.class, () -> reader.field(1));
+    }
+
+    @Test
+    void corruptOffsetTest() {
+        ByteBuf buf = new ByteBuf();
+        IndexedRecordWriter writer = new IndexedRecordWriter(buf, 1);
+        writer.nextField().putInt(1234567890);
+        writer.finish();
+        buf.setPosition(4);
+        buf.putInt(100_000_000);
+        buf.setPosition(0);
+        IndexedRecordReader reader = new IndexedRecordReader(buf);
+        assertThrows(IllegalArgumentException.class, () -> reader.field(0));
+        assertEquals(256, buf.getCapacity());
+        assertEquals(16, buf.getLimit());
+    }
+
+    @Test
+    void unorderedOffsetTest() {
+        ByteBuf buf = new ByteBuf();
+        IndexedRecordWriter writer = new IndexedRecordWriter(buf, 2);
+        writer.nextField().putInt(1234567890);
+        writer.nextField().putInt(987654321);
+        writer.finish();
+        buf.setPosition(4);
+        buf.putInt(6);
+        buf.setPosition(0);
+        IndexedRecordReader reader = new IndexedRecordReader(buf);
+        assertThrows(IllegalArgumentException.class, () -> reader.fieldLength(0));
+    }
+
+    @Test
+    void corruptFieldCountTest() {
+        ByteBuf buf = new ByteBuf();
+        IndexedRecordWriter writer = new IndexedRecordWriter(buf, 1);
+        writer.nextField().putInt(1234567890);
+        writer.finish();
+        buf.setPosition(0);
+        buf.putInt(Integer.MAX_VALUE);
+        buf.setPosition(0);
+        assertThrows(IllegalArgumentException.class, () -> new IndexedRecordReader(buf));
+        assertEquals(16, buf.getLimit());
+    }
+
+    @Test
+    void corruptBodyEndTest() {
+        ByteBuf buf = new ByteBuf();
+        IndexedRecordWriter writer = new IndexedRecordWriter(buf, 1);
+        writer.nextField().putInt(1234567890);
+        writer.finish();
+        buf.setPosition(8);
+        buf.putInt(100_000_000);
+        buf.setPosition(0);
+        assertThrows(IllegalArgumentException.class, () -> new IndexedRecordReader(buf));
+    }
+}
@@ -0,0 +1,84 @@
+package com.editbox.database.serialize;
+
+/**
+ * Writes a record with a field index in front of its body into a {@link ByteBuf ByteBuf}.
+ * <p>
+ * The record consists of the number of fields, the offsets of all fields and of
+ * the body end relative to the body start, and the body itself. Every number of
+ * the header takes four bytes. The record is read by {@link IndexedRecordReader}.
+ */
+public class IndexedRecordWriter {
+
+    private final ByteBuf buf;
+
+    /**
+     * Offsets of written fields relative to the body start.
+     */
+    private final int[] offsets;
+
+    /**
+     * Position of the record in the buffer.
+     */
+    private final int start;
+
+    /**
+     * Position of the record body in the buffer.
+     */
+    private final int bodyStart;
+
+    /**
+     * Number of fields started so far.
+     */
+    private int written;
+
+    /**
+     * Starts a new record at the current position of the buffer.
+     *
+     * @param buf        the buffer to write to
+     * @param fieldCount the number of fields in the record
+     */
+    public IndexedRecordWriter(ByteBuf buf, int fieldCount) {
+        if (fieldCount < 0) {
+            throw new IllegalArgumentException("Invalid field count");
+        }
+        this.buf = buf;
+        this.offsets = new int[fieldCount];
+        this.start = buf.getPosition();
+        this.bodyStart = IndexedRecordReader.bodyStart(start, fieldCount);
+        buf.putInt(fieldCount);
+        buf.setPosition(bodyStart);
+    }
+
+    /**
+     * Starts the next field at the current position of the buffer.
+     * The value of the field is written by the usual put methods.
+     *
+     * @return The buffer to write the field to
+     */
+    public ByteBuf nextField() {
+        if (written == offsets.length) {
+            throw new IllegalStateException("All fields are written");
+        }
+        offsets[written++] = buf.getPosition() - bodyStart;
+        return buf;
+    }
+
+    /**
+     * Writes the field index and moves the position of the buffer to the end of the record.
+     *
+     * @return The buffer
+     */
+    public ByteBuf finish() {
+        if (written != offsets.length) {
+            throw new IllegalStateException("Not all fields are written");
+        }
+        int end = buf.getPosition();
+        buf.setPosition(start + 4);
+        for (int offset : offsets) {
+            buf.putInt(offset);
+        }
+        buf.putInt(end - bodyStart);
+        buf.setPosition(end);
+        return buf;
+    }
+}
@@ -0,0 +1,431 @@
+package com.editbox.database.serialize;
+
+/**
+ * Encodes sequences of longs into a {@link ByteBuf ByteBuf} with bit-packing.
+ * <p>
+ * A sequence is written as the number of values followed by blocks of
+ * {@link #BLOCK_SIZE} values. Every block can be decoded or skipped on its own:
+ * it starts with the values which are needed to restore it (none for frame of
+ * reference, one for delta and two for delta-of-delta encoding), then the minimal
+ * residual of the block in eight bytes, the bit width in one byte and the residuals
+ * minus the minimum packed with that width. Sorted keys are best encoded as deltas,
+ * timestamps with a regular step as delta-of-delta.
+ */
+public final class PackedLongs {
+
+    /**
+     * Number of values in a block.
+     */
+    public static final int BLOCK_SIZE = 128;
+
+    private PackedLongs() {
+    }
+
+    /**
+     * Writes the given values with frame of reference encoding only.
+     *
+     * @param buf    the buffer to write to
+     * @param values the values to be written
+     * @param offset the index of the first value
+     * @param length the number of values
+     */
+    public static void encode(ByteBuf buf, long[] values, int offset, int length) {
+        encode(buf, values, offset, length, 0);
+    }
+
+    /**
+     * Reads values written by {@link #encode(ByteBuf, long[], int, int)}.
+     *
+     * @param buf the buffer to read from
+     * @return The values
+     */
+    public static long[] decode(ByteBuf buf) {
+        return cursor(buf).decode();
+    }
+
+    /**
+     * Reads values written by {@link #encode(ByteBuf, long[], int, int)} into the given array.
+     *
+     * @param buf    the buffer to read from
+     * @param dst    the array to read to
+     * @param offset the index of the first value in the array
+     * @return The number of values
+     */
+    public static int decode(ByteBuf buf, long[] dst, int offset) {
+        return cursor(buf).decode(dst, offset);
+    }
+
+    /**
+     * Opens values written by {@link #encode(ByteBuf, long[], int, int)} for reading block by block.
+     *
+     * @param buf the buffer to read from
+     * @return The cursor over the blocks
+     */
+    public static Cursor cursor(ByteBuf buf) {
+        return new Cursor(buf, 0);
+    }
+
+    /**
+     * Writes the given values as deltas between neighbours.
+     *
+     * @param buf    the buffer to write to
+     * @param values the values to be written
+     * @param offset the index of the first value
+     * @param length the number of values
+     */
+    public static void encodeDelta(ByteBuf buf, long[] values, int offset, int length) {
+        encode(buf, values, offset, length, 1);
+    }
+
+    /**
+     * Reads values written by {@link #encodeDelta(ByteBuf, long[], int, int)}.
+     *
+     * @param buf the buffer to read from
+     * @return The values
+     */
+    public static long[] decodeDelta(ByteBuf buf) {
+        return deltaCursor(buf).decode();
+    }
+
+    /**
+     * Reads values written by {@link #encodeDelta(ByteBuf, long[], int, int)} into the given array.
+     *
+     * @param buf    the buffer to read from
+     * @param dst    the array to read to
+     * @param offset the index of the first value in the array
+     * @return The number of values
+     */
+    public static int decodeDelta(ByteBuf buf, long[] dst, int offset) {
+        return deltaCursor(buf).decode(dst, offset);
+    }
+
+    /**
+     * Opens values written by {@link #encodeDelta(ByteBuf, long[], int, int)} for reading block by block.
+     *
+     * @param buf the buffer to read from
+     * @return The cursor over the blocks
+     */
+    public static Cursor deltaCursor(ByteBuf buf) {
+        return new Cursor(buf, 1);
+    }
+
+    /**
+     * Writes the given values as differences between neighbouring deltas.
+     *
+     * @param buf    the buffer to write to
+     * @param values the values to be written
+     * @param offset the index of the first value
+     * @param length the number of values
+     */
+    public static void encodeDeltaOfDelta(ByteBuf buf, long[] values, int offset, int length) {
+        encode(buf, values, offset, length, 2);
+    }
+
+    /**
+     * Reads values written by {@link #encodeDeltaOfDelta(ByteBuf, long[], int, int)}.
+     *
+     * @param buf the buffer to read from
+     * @return The values
+     */
+    public static long[] decodeDeltaOfDelta(ByteBuf buf) {
+        return deltaOfDeltaCursor(buf).decode();
+    }
+
+    /**
+     * Reads values written by {@link #encodeDeltaOfDelta(ByteBuf, long[], int, int)} into the given array.
+     *
+     * @param buf    the buffer to read from
+     * @param dst    the array to read to
+     * @param offset the index of the first value in the array
+     * @return The number of values
+     */
+    public static int decodeDeltaOfDelta(ByteBuf buf, long[] dst, int offset) {
+        return deltaOfDeltaCursor(buf).decode(dst, offset);
+    }
+
+    /**
+     * Opens values written by {@link #encodeDeltaOfDelta(ByteBuf, long[], int, int)}
+     * for reading block by block.
+     *
+     * @param buf the buffer to read from
+     * @return The cursor over the blocks
+     */
+    public static Cursor deltaOfDeltaCursor(ByteBuf buf) {
+        return new Cursor(buf, 2);
+    }
+
+    /**
+     * Reads the blocks of an encoded sequence one by one.
+     * <p>
+     * The cursor reads the number of values when it is opened; every call of
+     * {@link #next(long[], int)} or {@link #skip()} then moves the position of
+     * the buffer past one block.
+     */
+    public static final class Cursor {
+
+        private final ByteBuf buf;
+
+        /**
+         * Order of differences the residuals are taken of.
+         */
+        private final int order;
+
+        private final int length;
+
+        private int remaining;
+
+        private Cursor(ByteBuf buf, int order) {
+            this.buf = buf;
+            this.order = order;
+            require(4);
+            this.length = buf.getInt();
+            // every block takes at least eight bytes
+            if (length < 0 || ((long) length + BLOCK_SIZE - 1) / BLOCK_SIZE > (buf.getLimit() - buf.getPosition()) / 8) {
+                throw new IllegalArgumentException("Invalid length");
+            }
+            this.remaining = length;
+        }
+
+        /**
+         * Returns the number of values in the sequence.
+         *
+         * @return The number of values
+         */
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * Returns the number of values which are not read or skipped yet.
+         *
+         * @return The number of remaining values
+         */
+        public int getRemaining() {
+            return remaining;
+        }
+
+        /**
+         * Unpacks the next block into the given array.
+         *
+         * @param dst    the array to read to, with room for {@link #BLOCK_SIZE} values
+         * @param offset the index of the first value in the array
+         * @return The number of values read, {@code 0} at the end of the sequence
+         */
+        public int next(long[] dst, int offset) {
+            int n = Math.min(remaining, BLOCK_SIZE);
+            if (offset < 0 || offset > dst.length - n) {
+                throw new IllegalArgumentException("Invalid length");
+            }
+            int head = Math.min(order, n);
+            require(head * 8);
+            for (int i = 0; i < head; i++) {
+                dst[offset + i] = buf.getLong();
+            }
+            if (n > head) {
+                readBlock(dst, offset + head, offset + n);
+                if (order == 1) {
+                    for (int i = offset + head; i < offset + n; i++) {
+                        dst[i] += dst[i - 1];
+                    }
+                } else if (order == 2) {
+                    for (int i = offset + head; i < offset + n; i++) {
+                        dst[i] += 2 * dst[i - 1] - dst[i - 2];
+                    }
+                }
+            }
+            remaining -= n;
+            return n;
+        }
+
+        /**
+         * Moves past the next block without unpacking it.
+         *
+         * @return The number of values skipped, {@code 0} at the end of the sequence
+         */
+        public int skip() {
+            int n = Math.min(remaining, BLOCK_SIZE);
+            int head = Math.min(order, n);
+            if (n > head) {
+                require(head * 8 + 9);
+                buf.setPosition(buf.getPosition() + head * 8 + 8);
+                int width = readWidth();
+                int bytes = ((n - head) * width + 7) / 8;
+                require(bytes);
+                buf.setPosition(buf.getPosition() + bytes);
+            } else {
+                require(head * 8);
+                buf.setPosition(buf.getPosition() + head * 8);
+            }
+            remaining -= n;
+            return n;
+        }
+
+        /**
+         * Reads the remaining values.
+         */
+        private long[] decode() {
+            long[] result = new long[remaining];
+            decode(result, 0);
+            return result;
+        }
+
+        /**
+         * Reads the remaining values into the given array.
+         */
+        private int decode(long[] dst, int offset) {
+            int count = remaining;
+            if (offset < 0 || offset > dst.length - count) {
+                throw new IllegalArgumentException("Invalid length");
+            }
+            while (remaining > 0) {
+                offset += next(dst, offset);
+            }
+            return count;
+        }
+
+        /**
+         * Unpacks the residuals of a block into the given range of the array.
+         */
+        private void readBlock(long[] dst, int from, int to) {
+            require(9);
+            long min = buf.getLong();
+            int width = readWidth();
+            require(((to - from) * width + 7) / 8);
+            if (width == 0) {
+                for (int i = from; i < to; i++) {
+                    dst[i] = min;
+                }
+                return;
+            }
+            long bits = 0;
+            int available = 0;
+            for (int i = from; i < to; i++) {
+                long value;
+                if (width > 56) {
+                    // the value does not fit the accumulator together with a partial byte
+                    while (available < width - 32) {
+                        bits = bits << 8 | buf.getByte() & 0xFF;
+                        available += 8;
+                    }
+                    available -= width - 32;
+                    value = (bits >>> available & mask(width - 32)) << 32;
+                    while (available < 32) {
+                        bits = bits << 8 | buf.getByte() & 0xFF;
+                        available += 8;
+                    }
+                    available -= 32;
+                    value |= bits >>> available & mask(32);
+                } else {
+                    while (available < width) {
+                        bits = bits << 8 | buf.getByte() & 0xFF;
+                        available += 8;
+                    }
+                    available -= width;
+                    value = bits >>> available & mask(width);
+                }
+                dst[i] = value + min;
+            }
+        }
+
+        private int readWidth() {
+            int width = buf.getByte() & 0xFF;
+            if (width > 64) {
+                throw new IllegalArgumentException("Invalid width");
+            }
+            return width;
+        }
+
+        /**
+         * Checks that the given number of bytes can be read without passing the limit of the buffer.
+         */
+        private void require(int bytes) {
+            if (bytes > buf.getLimit() - buf.getPosition()) {
+                throw new IllegalArgumentException("Invalid length");
+            }
+        }
+    }
+
+    /**
+     * Writes the values block by block as residuals of the given order of differences.
+     */
+    private static void encode(ByteBuf buf, long[] values, int offset, int length, int order) {
+        if (offset < 0 || length < 0 || offset > values.length - length) {
+            throw new IllegalArgumentException("Invalid length");
+        }
+        buf.putInt(length);
+        long[] block = new long[BLOCK_SIZE];
+        for (int from = offset; from < offset + length; from += BLOCK_SIZE) {
+            int to = Math.min(from + BLOCK_SIZE, offset + length);
+            int head = Math.min(order, to - from);
+            for (int i = from; i < from + head; i++) {
+                buf.putLong(values[i]);
+            }
+            int n = 0;
+            for (int i = from + head; i < to; i++) {
+                long value = values[i];
+                if (order == 1) {
+                    value -= values[i - 1];
+                } else if (order == 2) {
+                    value -= 2 * values[i - 1] - values[i - 2];
+                }
+                block[n++] = value;
+            }
+            if (n > 0) {
+                writeBlock(buf, block, n);
+            }
+        }
+    }
+
+    /**
+     * Writes the minimum, the bit width and the packed residuals of the block.
+     */
+    private static void writeBlock(ByteBuf buf, long[] block, int n) {
+        long min = block[0];
+        for (int i = 1; i < n; i++) {
+            min = Math.min(min, block[i]);
+        }
+        long or = 0;
+        for (int i = 0; i < n; i++) {
+            or |= block[i] - min;
+        }
+        int width = 64 - Long.numberOfLeadingZeros(or);
+        buf.putLong(min);
+        buf.putByte((byte) width);
+        if (width == 0) {
+            return;
+        }
+        long bits = 0;
+        int pending = 0;
+        for (int i = 0; i < n; i++) {
+            long value = block[i] - min;
+            if (width > 56) {
+                // the value does not fit the accumulator together with a partial byte
+                bits = bits << (width - 32) | value >>> 32;
+                pending += width - 32;
+                while (pending >= 8) {
+                    pending -= 8;
+                    buf.putByte((byte) (bits >>> pending));
+                }
+                bits = bits << 32 | value & mask(32);
+                pending += 32;
+            } else {
+                bits = bits << width | value;
+                pending += width;
+            }
+            while (pending >= 8) {
+                pending -= 8;
+                buf.putByte((byte) (bits >>> pending));
+            }
+        }
+        if (pending > 0) {
+            buf.putByte((byte) (bits << (8 - pending)));
+        }
+    }
+
+    /**
+     * Returns the mask of the given number of low bits, up to 63.
+     */
+    private static long mask(int width) {
+        return (1L << width) - 1;
+    }
+}
@@ -0,0 +1,131 @@
+package com.editbox.database.serialize;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedLongsTest {
+
+    @Test
+    void frameOfReferenceTest() {
+        long[] values = new long[]{-5, 1000, Long.MAX_VALUE, Long.MIN_VALUE, 0};
+        ByteBuf buf = new ByteBuf();
+        PackedLongs.encode(buf, values, 0, values.length);
+        buf.setPosition(0);
+        assertArrayEquals(values, PackedLongs.decode(buf));
+    }
+
+    @Test
+    void deltaTest() {
+        Random random = new Random(42);
+        long[] values = new long[1000];
+        values[0] = 5555555555555555555L;
+        for (int i = 1; i < values.length; i++) {
+            values[i] = values[i - 1] + random.nextInt(100);
+        }
+        ByteBuf buf = new ByteBuf();
+        PackedLongs.encodeDelta(buf, values, 0, values.length);
+        assertTrue(buf.getPosition() < values.length * 8 / 4);
+        buf.setPosition(0);
+        assertArrayEquals(values, PackedLongs.decodeDelta(buf));
+        assertEquals(buf.getLimit(), buf.getPosition());
+    }
+
+    @Test
+    void deltaOfDeltaTest() {
+        long[] values = new long[300];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1537488000000L + i * 1000L;
+        }
+        ByteBuf buf = new ByteBuf();
+        PackedLongs.encodeDeltaOfDelta(buf, values, 0, values.length);
+        assertEquals(4 + 3 * (2 * 8 + 9), buf.getPosition());
+        buf.setPosition(0);
+        assertArrayEquals(values, PackedLongs.decodeDeltaOfDelta(buf));
+    }
+
+    @Test
+    void decodeIntoArrayTest() {
+        long[] values = new long[PackedLongs.BLOCK_SIZE + 1];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 7L;
+        }
+        ByteBuf buf = new ByteBuf();
+        PackedLongs.encodeDelta(buf, values, 1, values.length - 1);
+        buf.setPosition(0);
+        long[] dst = new long[values.length];
+        assertEquals(values.length - 1, PackedLongs.decodeDelta(buf, dst, 1));
+        assertArrayEquals(values, dst);
+    }
+
+    @Test
+    void cursorTest() {
+        long[] values = new long[300];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 3L;
+        }
+        ByteBuf buf = new ByteBuf();
+        PackedLongs.encodeDelta(buf, values, 0, values.length);
+        buf.putByte((byte) 0x55);
+        buf.setPosition(0);
+        PackedLongs.Cursor cursor = PackedLongs.deltaCursor(buf);
+        assertEquals(300, cursor.getLength());
+        assertEquals(PackedLongs.BLOCK_SIZE, cursor.skip());
+        long[] block = new long[PackedLongs.BLOCK_SIZE];
+        assertEquals(PackedLongs.BLOCK_SIZE, cursor.next(block, 0));
+        assertEquals(384, block[0]);
+        assertEquals(765, block[PackedLongs.BLOCK_SIZE - 1]);
+        assertEquals(44, cursor.next(block, 0));
+        assertEquals(897, block[43]);
+        assertEquals(0, cursor.getRemaining());
+        assertEquals(0, cursor.next(block, 0));
+        assertEquals((byte) 0x55, buf.getByte());
+    }
+
+    @Test
+    void emptyTest() {
+        ByteBuf buf = new ByteBuf();
+        PackedLongs.encodeDeltaOfDelta(buf, new long[0], 0, 0);
+        assertEquals(4, buf.getPosition());
+        buf.setPosition(0);
+        assertEquals(0, PackedLongs.decodeDeltaOfDelta(buf).length);
+    }
+
+    @Test
+    void smallArrayTest() {
+        ByteBuf buf = new ByteBuf();
+        PackedLongs.encodeDelta(buf, new long[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10}, 0, 10);
+        buf.setPosition(0);
+        assertThrows(IllegalArgumentException.class, () -> PackedLongs.decodeDelta(buf, new long[9], 0));
+    }
+
+    @Test
+    void invalidLengthTest() {
+        ByteBuf buf = new ByteBuf();
+        buf.putInt(Integer.MAX_VALUE);
+        buf.setPosition(0);
+        assertThrows(IllegalArgumentException.class, () -> PackedLongs.decodeDelta(buf));
+        assertEquals(4, buf.getLimit());
+    }
+
+    @Test
+    void missingLengthTest() {
+        for (int limit = 0; limit < 4; limit++) {
+            ByteBuf buf = new ByteBuf();
+            buf.setLimit(limit);
+            assertThrows(IllegalArgumentException.class, () -> PackedLongs.decode(buf));
+            assertEquals(limit, buf.getLimit());
+        }
+    }
+
+    @Test
+    void truncatedBlockTest() {
+        ByteBuf buf = new ByteBuf();
+        PackedLongs.encode(buf, new long[]{1, 1000, 1000000}, 0, 3);
+        buf.setLimit(buf.getLimit() - 1);
+        buf.setPosition(0);
+        assertThrows(IllegalArgumentException.class, () -> PackedLongs.decode(buf));
+    }
+}